@@ -0,0 +1,21 @@
+package com.example.export;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class ExportBusyException extends ResponseStatusException {
+
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    public ExportBusyException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Trop d'exports en cours");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return headers;
+    }
+}
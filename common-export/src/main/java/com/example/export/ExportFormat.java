@@ -0,0 +1,132 @@
+package com.example.export;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv") {
+        @Override
+        public void appendHeader(StringBuilder sb, String[] columns) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(columns[i]);
+            }
+            sb.append('\n');
+        }
+
+        @Override
+        public void appendRow(StringBuilder sb, String[] columns, Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                Object value = values[i];
+                if (value != null) {
+                    appendCsvValue(sb, value.toString());
+                }
+            }
+            sb.append('\n');
+        }
+    },
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        public void appendHeader(StringBuilder sb, String[] columns) {
+        }
+
+        @Override
+        public void appendRow(StringBuilder sb, String[] columns, Object[] values) {
+            sb.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append('"').append(columns[i]).append("\":");
+                Object value = values[i];
+                if (value == null) {
+                    sb.append("null");
+                } else if (value instanceof Number) {
+                    sb.append(value);
+                } else {
+                    appendJsonString(sb, value.toString());
+                }
+            }
+            sb.append("}\n");
+        }
+    };
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public abstract void appendHeader(StringBuilder sb, String[] columns);
+
+    public abstract void appendRow(StringBuilder sb, String[] columns, Object[] values);
+
+    public static ExportFormat fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (ExportFormat format : values()) {
+            if (format.extension.equals(value.toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static void appendCsvValue(StringBuilder sb, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
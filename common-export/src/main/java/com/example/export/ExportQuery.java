@@ -0,0 +1,10 @@
+package com.example.export;
+
+import java.util.Set;
+
+/**
+ * Requete d'export: le SQL, le nom des colonnes dans le fichier produit (dans l'ordre
+ * du SELECT) et celles qui contiennent un UUID, stocke en BINARY(16) sous MySQL.
+ */
+public record ExportQuery(String sql, String[] columns, Set<String> uuidColumns) {
+}
@@ -0,0 +1,28 @@
+package com.example.export;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Reponse de telechargement d'un export. Avec gzip, le client recoit un fichier .gz
+ * (application/gzip, sans Content-Encoding): un navigateur ou un client HTTP qui
+ * decompresse le Content-Encoding enregistrerait sinon du texte sous un nom en .gz.
+ */
+public final class ExportResponse {
+
+    public static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private ExportResponse() {
+    }
+
+    public static ResponseEntity<StreamingResponseBody> attachment(String baseName, ExportFormat format, boolean gzip,
+                                                                   StreamingResponseBody body) {
+        String filename = baseName + "." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.export;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streame le resultat d'une requete SQL directement vers la reponse HTTP.
+ * Le ResultSet est lu en forward-only avec un fetch size borne, sans passer par
+ * le contexte de persistance JPA, et le nombre d'exports simultanes est limite
+ * pour ne jamais occuper plus de quelques connexions du pool.
+ * <p>
+ * Le partitionRunner execute la requete sur chaque partition de la base
+ * (une seule par defaut, chaque shard pour ms-a), l'une apres l'autre: un export
+ * ne tient qu'une connexion a la fois.
+ * <p>
+ * La DataSource doit etre un pool dedie aux exports, hors du pool transactionnel:
+ * l'exporter en devient proprietaire et la ferme avec lui.
+ */
+@Slf4j
+public class JdbcExporter implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Consumer<Runnable> partitionRunner;
+    private final Semaphore permits;
+    private final int bufferSize;
+
+    public JdbcExporter(DataSource dataSource, int fetchSize, int maxConcurrent, int bufferSize) {
+        this(dataSource, fetchSize, maxConcurrent, bufferSize, Runnable::run);
+    }
+
+    public JdbcExporter(DataSource dataSource, int fetchSize, int maxConcurrent, int bufferSize,
+                        Consumer<Runnable> partitionRunner) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.partitionRunner = partitionRunner;
+        this.permits = new Semaphore(maxConcurrent);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Reserve un export: vide si export.max-concurrent exports sont deja en cours.
+     * Le permis est rendu a la fin de l'ecriture, ou a la fin du traitement asynchrone
+     * de la requete si le corps n'a jamais tourne (timeout, rejet par l'executor, erreur).
+     */
+    public Optional<StreamingResponseBody> open(ExportQuery query, ExportFormat format, boolean gzip) {
+        if (!permits.tryAcquire()) {
+            return Optional.empty();
+        }
+        ExportBody body = new ExportBody(query, format, gzip);
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(body, body);
+        }
+        return Optional.of(body);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void write(ExportQuery query, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, bufferSize) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzip ? gzipOut : out, StandardCharsets.UTF_8), bufferSize);
+        String[] columns = query.columns();
+        boolean[] uuidColumns = new boolean[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            uuidColumns[i] = query.uuidColumns().contains(columns[i]);
+        }
+        StringBuilder line = new StringBuilder(256);
+        Object[] values = new Object[columns.length];
+
+        format.appendHeader(line, columns);
+        writer.append(line);
+
+        long[] rows = {0};
+        RowCallbackHandler handler = rs -> {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = uuidColumns[i] ? readUuid(rs, i + 1) : rs.getObject(i + 1);
+            }
+            line.setLength(0);
+            format.appendRow(line, columns, values);
+            try {
+                writer.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        };
+
+        try {
+            partitionRunner.accept(() -> jdbcTemplate.query(query.sql(), handler));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        out.flush();
+        log.info("Export {} termine: {} lignes", format, rows[0]);
+    }
+
+    static Object readUuid(ResultSet rs, int index) throws SQLException {
+        Object value = rs.getObject(index);
+        if (value instanceof byte[] bytes) {
+            if (bytes.length != 16) {
+                throw new SQLException("UUID attendu sur 16 octets en colonne " + index + ", recu " + bytes.length);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+        return value;
+    }
+
+    private final class ExportBody implements StreamingResponseBody, CallableProcessingInterceptor {
+
+        private final ExportQuery query;
+        private final ExportFormat format;
+        private final boolean gzip;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ExportBody(ExportQuery query, ExportFormat format, boolean gzip) {
+            this.query = query;
+            this.format = format;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                write(query, format, gzip, out);
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            release();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
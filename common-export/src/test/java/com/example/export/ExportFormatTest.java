@@ -0,0 +1,71 @@
+package com.example.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExportFormatTest {
+
+    private static final String[] COLUMNS = {"nom", "age", "dateNaissance"};
+
+    private static String row(ExportFormat format, Object... values) {
+        StringBuilder sb = new StringBuilder();
+        format.appendRow(sb, COLUMNS, values);
+        return sb.toString();
+    }
+
+    @Test
+    void csvHeaderListsColumns() {
+        StringBuilder sb = new StringBuilder();
+        ExportFormat.CSV.appendHeader(sb, COLUMNS);
+
+        assertEquals("nom,age,dateNaissance\n", sb.toString());
+    }
+
+    @Test
+    void csvWritesPlainValuesAsIsAndNullAsEmpty() {
+        assertEquals("Durand,35,1990-05-15\n", row(ExportFormat.CSV, "Durand", 35, LocalDate.of(1990, 5, 15)));
+        assertEquals(",,\n", row(ExportFormat.CSV, null, null, null));
+    }
+
+    @Test
+    void csvQuotesSeparatorsQuotesAndLineBreaks() {
+        assertEquals("\"Durand, Marie\",1,x\n", row(ExportFormat.CSV, "Durand, Marie", 1, "x"));
+        assertEquals("\"dit \"\"le grand\"\"\",1,x\n", row(ExportFormat.CSV, "dit \"le grand\"", 1, "x"));
+        assertEquals("\"ligne1\nligne2\",1,\"a\rb\"\n", row(ExportFormat.CSV, "ligne1\nligne2", 1, "a\rb"));
+    }
+
+    @Test
+    void ndjsonHasNoHeader() {
+        StringBuilder sb = new StringBuilder();
+        ExportFormat.NDJSON.appendHeader(sb, COLUMNS);
+
+        assertEquals("", sb.toString());
+    }
+
+    @Test
+    void ndjsonWritesNumbersBareAndNullAsNull() {
+        assertEquals("{\"nom\":\"Durand\",\"age\":35,\"dateNaissance\":null}\n",
+                row(ExportFormat.NDJSON, "Durand", 35, null));
+        assertEquals("{\"nom\":null,\"age\":12.50,\"dateNaissance\":\"1990-05-15\"}\n",
+                row(ExportFormat.NDJSON, null, new BigDecimal("12.50"), LocalDate.of(1990, 5, 15)));
+    }
+
+    @Test
+    void ndjsonEscapesQuotesBackslashesAndControlCharacters() {
+        assertEquals("{\"nom\":\"a\\\"b\\\\c\",\"age\":1,\"dateNaissance\":\"l1\\nl2\\r\\t\\u0001\"}\n",
+                row(ExportFormat.NDJSON, "a\"b\\c", 1, "l1\nl2\r\t\u0001"));
+    }
+
+    @Test
+    void fromValueIgnoresCaseAndRejectsUnknownFormats() {
+        assertEquals(ExportFormat.CSV, ExportFormat.fromValue("CSV"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromValue("ndjson"));
+        assertNull(ExportFormat.fromValue("xml"));
+        assertNull(ExportFormat.fromValue(null));
+    }
+}
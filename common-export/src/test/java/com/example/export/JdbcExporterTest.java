@@ -0,0 +1,152 @@
+package com.example.export;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JdbcExporterTest {
+
+    private static final UUID ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    private static final ExportQuery QUERY = new ExportQuery(
+            "SELECT id, nom FROM persons ORDER BY nom",
+            new String[]{"id", "nom"},
+            Set.of("id"));
+
+    private DriverManagerDataSource dataSource;
+    private JdbcExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:jdbc_exporter_test;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS persons");
+        jdbcTemplate.execute("CREATE TABLE persons (id UUID PRIMARY KEY, nom VARCHAR(100))");
+        jdbcTemplate.update("INSERT INTO persons VALUES (?, ?)", ID, "Durand, Marie");
+        exporter = new JdbcExporter(dataSource, 100, 1, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void streamsCsv() throws IOException {
+        String csv = new String(export(false), StandardCharsets.UTF_8);
+
+        assertEquals("id,nom\n" + ID + ",\"Durand, Marie\"\n", csv);
+    }
+
+    @Test
+    void gzipProducesAValidGzipFile() throws IOException {
+        byte[] compressed = export(true);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals("id,nom\n" + ID + ",\"Durand, Marie\"\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void permitIsReleasedAfterTheExportRuns() throws IOException {
+        StreamingResponseBody body = exporter.open(QUERY, ExportFormat.CSV, false).orElseThrow();
+        assertTrue(exporter.open(QUERY, ExportFormat.CSV, false).isEmpty());
+
+        body.writeTo(new ByteArrayOutputStream());
+
+        assertTrue(exporter.open(QUERY, ExportFormat.CSV, false).isPresent());
+    }
+
+    @Test
+    void permitIsReleasedWhenAsyncProcessingEndsBeforeTheBodyRuns() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        StreamingResponseBody body = exporter.open(QUERY, ExportFormat.CSV, false).orElseThrow();
+        assertTrue(exporter.open(QUERY, ExportFormat.CSV, false).isEmpty());
+
+        // Timeout ou rejet par l'executor: seul afterCompletion est appele
+        WebAsyncUtils.getAsyncManager(request).getCallableInterceptor(body)
+                .afterCompletion(new ServletWebRequest(request), () -> null);
+
+        assertTrue(exporter.open(QUERY, ExportFormat.CSV, false).isPresent());
+    }
+
+    @Test
+    void permitIsReleasedOnlyOnce() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        JdbcExporter twoSlots = new JdbcExporter(dataSource, 100, 2, 1024);
+
+        StreamingResponseBody body = twoSlots.open(QUERY, ExportFormat.CSV, false).orElseThrow();
+        body.writeTo(new ByteArrayOutputStream());
+        WebAsyncUtils.getAsyncManager(request).getCallableInterceptor(body)
+                .afterCompletion(new ServletWebRequest(request), () -> null);
+
+        assertTrue(twoSlots.open(QUERY, ExportFormat.CSV, false).isPresent());
+        assertTrue(twoSlots.open(QUERY, ExportFormat.CSV, false).isPresent());
+        assertTrue(twoSlots.open(QUERY, ExportFormat.CSV, false).isEmpty());
+    }
+
+    @Test
+    void readUuidDecodesSixteenBytes() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        byte[] bytes = ByteBuffer.allocate(16)
+                .putLong(ID.getMostSignificantBits())
+                .putLong(ID.getLeastSignificantBits())
+                .array();
+        when(rs.getObject(1)).thenReturn(bytes);
+
+        assertEquals(ID, JdbcExporter.readUuid(rs, 1));
+    }
+
+    @Test
+    void readUuidPassesThroughNonBinaryValues() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1)).thenReturn(ID);
+        when(rs.getObject(2)).thenReturn(null);
+
+        assertEquals(ID, JdbcExporter.readUuid(rs, 1));
+        assertNull(JdbcExporter.readUuid(rs, 2));
+    }
+
+    @Test
+    void readUuidRejectsBinaryOfWrongLength() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1)).thenReturn(new byte[8]);
+
+        assertThrows(SQLException.class, () -> JdbcExporter.readUuid(rs, 1));
+    }
+
+    private byte[] export(boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.open(QUERY, ExportFormat.CSV, gzip).orElseThrow().writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Charge POST /persons et affiche la repartition des codes HTTP ainsi que
+# l'evolution de la limite d'admission.
+#
+# Usage: ./create-persons.sh [requetes] [concurrence] [url]
+#   ex: ./create-persons.sh 20000 100 http://localhost:8081
+#
+# Pour observer le delestage, arreter MS-B pendant le test: le lag sur
+# person-created-topic monte, persons.admission.limit descend et une part
+# croissante des reponses passe en 429 avec un header Retry-After.
+
+set -euo pipefail
+
+REQUESTS=${1:-5000}
+CONCURRENCY=${2:-50}
+BASE_URL=${3:-http://localhost:8081}
+RESULTS=$(mktemp)
+trap 'rm -f "$RESULTS"; kill "$WATCHER" 2>/dev/null || true' EXIT
+
+metric() {
+    curl -s "$BASE_URL/actuator/metrics/$1" | sed -n 's/.*"value":\([0-9.E+-]*\).*/\1/p'
+}
+
+watch_limit() {
+    while true; do
+        echo "[$(date +%T)] limit=$(metric persons.admission.limit) inflight=$(metric persons.admission.inflight) lag=$(metric persons.admission.consumer.lag)"
+        sleep 2
+    done
+}
+
+watch_limit &
+WATCHER=$!
+
+START=$(date +%s)
+seq "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} curl -s -o /dev/null \
+    -w '%{http_code} %{time_total}\n' \
+    -X POST "$BASE_URL/persons" \
+    -H 'Content-Type: application/json' \
+    -d '{"nom":"Charge","prenom":"Test{}","dateNaissance":"1990-05-15"}' >> "$RESULTS"
+END=$(date +%s)
+
+echo
+echo "Duree: $((END - START))s pour $REQUESTS requetes (concurrence $CONCURRENCY)"
+echo "Codes HTTP:"
+cut -d' ' -f1 "$RESULTS" | sort | uniq -c
+awk '$1 == 429 {n++} END {printf "Part de 429: %.1f%%\n", NR ? 100 * n / NR : 0}' "$RESULTS"
+echo "Latence des 201 (s): p50 / p99"
+awk '$1 == 201 {print $2}' "$RESULTS" | sort -n | awk '{a[NR]=$1} END {if (NR) print a[int(NR*0.5)+1], a[int(NR*0.99)+1]}'
@@ -8,4 +8,4 @@ public class MsAApplication {
     public static void main(String[] args) {
         SpringApplication.run(MsAApplication.class, args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,202 @@
+package com.example.msa.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limite de concurrence AIMD pour les creations de personnes.
+ * La limite augmente de 1 tant que les requetes restent sous la latence cible
+ * et que le retard de MS-B sur person-created-topic reste sous le seuil ; elle
+ * est multipliee par backoff-ratio des que la latence ou le lag depassent leur cible,
+ * ou qu'une requete echoue par surcharge (timeout, pool de connexions epuise...).
+ * Les erreurs client liberent le permis sans toucher a la limite.
+ * Au-dela de la limite, les requetes sont refusees en 429 au lieu d'allonger
+ * la file EN_ATTENTE.
+ */
+@Component
+@Slf4j
+public class AdaptiveLimiter {
+
+    public enum Outcome {
+        SUCCESS,
+        OVERLOAD,
+        IGNORED
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final long lagTarget;
+    private final double backoffRatio;
+    private final long retryAfterSeconds;
+    private final int retryAfterLagMultiplier;
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lag = new AtomicLong(-1);
+    private volatile double limit;
+
+    private final Counter admittedCounter;
+    private final Counter rejectedCounter;
+    private final Timer latencyTimer;
+
+    @Autowired
+    public AdaptiveLimiter(MeterRegistry meterRegistry,
+                           @Value("${admission.initial-limit:20}") int initialLimit,
+                           @Value("${admission.min-limit:1}") int minLimit,
+                           @Value("${admission.max-limit:200}") int maxLimit,
+                           @Value("${admission.latency-target:PT0.2S}") Duration latencyTarget,
+                           @Value("${admission.lag-target:1000}") long lagTarget,
+                           @Value("${admission.backoff-ratio:0.9}") double backoffRatio,
+                           @Value("${admission.retry-after:PT1S}") Duration retryAfter,
+                           @Value("${admission.retry-after-lag-multiplier:5}") int retryAfterLagMultiplier) {
+        this(meterRegistry, initialLimit, minLimit, maxLimit, latencyTarget, lagTarget, backoffRatio, retryAfter,
+                retryAfterLagMultiplier, System::nanoTime);
+    }
+
+    AdaptiveLimiter(MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+                    Duration latencyTarget, long lagTarget, double backoffRatio, Duration retryAfter,
+                    int retryAfterLagMultiplier, LongSupplier nanoTime) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.lagTarget = lagTarget;
+        this.backoffRatio = backoffRatio;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.retryAfterLagMultiplier = Math.max(1, retryAfterLagMultiplier);
+        this.nanoTime = nanoTime;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        this.admittedCounter = Counter.builder("persons.admission.admitted")
+                .description("Creations de personnes acceptees")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("persons.admission.rejected")
+                .description("Creations de personnes refusees en 429")
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("persons.admission.latency")
+                .description("Latence des creations acceptees")
+                .register(meterRegistry);
+        meterRegistry.gauge("persons.admission.limit", this, l -> l.limit);
+        meterRegistry.gauge("persons.admission.inflight", inFlight);
+        meterRegistry.gauge("persons.admission.consumer.lag", lag);
+    }
+
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejectedCounter.increment();
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                admittedCounter.increment();
+                return Optional.of(new Permit(nanoTime.getAsLong(), current + 1));
+            }
+        }
+    }
+
+    /**
+     * Recoit le dernier lag mesure sur person-created-topic. Une valeur negative
+     * signifie que la mesure est indisponible et n'influence pas la limite.
+     */
+    public void onLagSample(long sample) {
+        lag.set(sample);
+        if (sample > lagTarget) {
+            decrease();
+            log.debug("Lag {} au-dessus de la cible {}, limite reduite a {}", sample, lagTarget, (int) limit);
+        }
+    }
+
+    /**
+     * Vrai si l'exception traduit une surcharge (timeout, connexion ou verrou indisponible)
+     * plutot qu'une requete invalide.
+     */
+    public static boolean isOverload(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof CannotCreateTransactionException
+                    || t instanceof TransactionTimedOutException
+                    || t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getRetryAfterSeconds() {
+        return lag.get() > lagTarget ? retryAfterSeconds * retryAfterLagMultiplier : retryAfterSeconds;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void onComplete(long startNanos, int inFlightAtStart, Outcome outcome) {
+        long latencyNanos = nanoTime.getAsLong() - startNanos;
+        inFlight.decrementAndGet();
+
+        switch (outcome) {
+            case OVERLOAD -> decrease();
+            case SUCCESS -> {
+                latencyTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+                if (latencyNanos > latencyTargetNanos) {
+                    decrease();
+                } else if (lag.get() <= lagTarget && inFlightAtStart * 2 >= (int) limit) {
+                    increase();
+                }
+            }
+            case IGNORED -> {
+            }
+        }
+    }
+
+    private synchronized void increase() {
+        limit = Math.min(maxLimit, limit + 1);
+    }
+
+    private synchronized void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public final class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void release(Outcome outcome) {
+            if (released) {
+                return;
+            }
+            released = true;
+            onComplete(startNanos, inFlightAtStart, outcome);
+        }
+    }
+}
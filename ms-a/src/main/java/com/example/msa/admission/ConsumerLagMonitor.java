@@ -0,0 +1,94 @@
+package com.example.msa.admission;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure le retard du groupe de MS-B sur person-created-topic
+ * (somme sur les partitions de offset de fin - offset commite) et le transmet
+ * a l'AdaptiveLimiter.
+ */
+@Component
+@Slf4j
+public class ConsumerLagMonitor {
+
+    private final AdminClient adminClient;
+    private final AdaptiveLimiter limiter;
+    private final String topic;
+    private final String consumerGroup;
+    private final long timeoutMillis;
+
+    private volatile long lastLag = -1;
+
+    public ConsumerLagMonitor(KafkaAdmin kafkaAdmin,
+                              AdaptiveLimiter limiter,
+                              @Value("${admission.lag.topic:person-created-topic}") String topic,
+                              @Value("${admission.lag.consumer-group:ms-b-group}") String consumerGroup,
+                              @Value("${admission.lag.timeout:PT2S}") Duration timeout) {
+        this.adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        this.limiter = limiter;
+        this.topic = topic;
+        this.consumerGroup = consumerGroup;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${admission.lag.poll-interval:PT5S}")
+    public void poll() {
+        try {
+            lastLag = measureLag();
+        } catch (Exception e) {
+            log.warn("Impossible de mesurer le lag de {} sur {}: {}", consumerGroup, topic, e.getMessage());
+            lastLag = -1;
+        }
+        limiter.onLagSample(lastLag);
+    }
+
+    /**
+     * @return dernier lag mesure, ou -1 si la derniere mesure a echoue
+     */
+    public long getLastLag() {
+        return lastLag;
+    }
+
+    long measureLag() throws Exception {
+        TopicDescription description = adminClient.describeTopics(List.of(topic))
+                .allTopicNames().get(timeoutMillis, TimeUnit.MILLISECONDS).get(topic);
+
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        description.partitions().forEach(p -> latest.put(new TopicPartition(topic, p.partition()), OffsetSpec.latest()));
+
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = adminClient.listOffsets(latest)
+                .all().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        Map<TopicPartition, OffsetAndMetadata> committed = adminClient.listConsumerGroupOffsets(consumerGroup)
+                .partitionsToOffsetAndMetadata().get(timeoutMillis, TimeUnit.MILLISECONDS);
+
+        long lag = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> entry : endOffsets.entrySet()) {
+            OffsetAndMetadata offset = committed.get(entry.getKey());
+            long position = offset != null ? offset.offset() : 0;
+            lag += Math.max(0, entry.getValue().offset() - position);
+        }
+        return lag;
+    }
+
+    @PreDestroy
+    public void close() {
+        adminClient.close(Duration.ofSeconds(1));
+    }
+}
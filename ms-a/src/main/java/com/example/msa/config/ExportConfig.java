@@ -0,0 +1,42 @@
+package com.example.msa.config;
+
+import com.example.export.JdbcExporter;
+import com.example.msa.sharding.ShardProperties;
+import com.example.msa.sharding.ShardRouter;
+import com.example.msa.sharding.ShardRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+@Configuration
+public class ExportConfig {
+
+    // Pools dedies par shard (persons-export-<i>): un export long ne prend aucune connexion
+    // du pool transactionnel, et useCursorFetch ne s'applique qu'a ces connexions
+    @Bean
+    public JdbcExporter jdbcExporter(ShardProperties shardProperties,
+                                     ShardRouter shardRouter,
+                                     ObjectProvider<MeterRegistry> meterRegistry,
+                                     @Value("${export.fetch-size:1000}") int fetchSize,
+                                     @Value("${export.max-concurrent:2}") int maxConcurrent,
+                                     @Value("${export.buffer-size:65536}") int bufferSize) {
+        ShardRoutingDataSource exportDataSource = ShardingConfig.routingDataSource(shardProperties, false, "persons-export-",
+                shard -> StringUtils.hasText(shard.getExportUrl()) ? shard.getExportUrl() : shard.getUrl(),
+                (shard, pool) -> {
+                    pool.setMaximumPoolSize(maxConcurrent);
+                    pool.setMinimumIdle(0);
+                },
+                meterRegistry);
+        exportDataSource.afterPropertiesSet();
+
+        // Scatter-gather: la requete est rejouee sur chaque shard, l'un apres l'autre
+        return new JdbcExporter(exportDataSource, fetchSize, maxConcurrent, bufferSize, query -> {
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                shardRouter.onShard(shard, query);
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.msa.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Taches planifiees (reconciliation, mesure du lag), desactivees quand l'application
+ * est lancee comme outil de rebalancing (shards.rebalance=true).
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "shards.rebalance", havingValue = "false", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,67 @@
+package com.example.msa.config;
+
+import com.example.msa.sharding.ShardProperties;
+import com.example.msa.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+@Configuration
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public DataSource dataSource(ShardProperties shardProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return routingDataSource(shardProperties, true, "persons-shard-", ShardProperties.ShardDataSource::getUrl,
+                (shard, pool) -> pool.setMaximumPoolSize(shard.getMaximumPoolSize()), meterRegistry);
+    }
+
+    /**
+     * Un pool Hikari par shard derriere une ShardRoutingDataSource. Les pools ne sont pas
+     * des beans: la routing datasource les ferme, et les metriques sont branchees ici.
+     */
+    static ShardRoutingDataSource routingDataSource(ShardProperties shardProperties,
+                                                    boolean defaultShardUntilStarted,
+                                                    String poolNamePrefix,
+                                                    Function<ShardProperties.ShardDataSource, String> url,
+                                                    BiConsumer<ShardProperties.ShardDataSource, HikariDataSource> customizer,
+                                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        List<ShardProperties.ShardDataSource> shards = shardProperties.getDatasources();
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardProperties.ShardDataSource shard = shards.get(i);
+            DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.apply(shard))
+                    .username(shard.getUsername())
+                    .password(shard.getPassword());
+            if (StringUtils.hasText(shard.getDriverClassName())) {
+                builder.driverClassName(shard.getDriverClassName());
+            }
+            HikariDataSource dataSource = builder.build();
+            dataSource.setPoolName(poolNamePrefix + i);
+            customizer.accept(shard, dataSource);
+            meterRegistry.ifAvailable(registry ->
+                    dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            targets.put(i, dataSource);
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(defaultShardUntilStarted);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(0));
+        return routing;
+    }
+}
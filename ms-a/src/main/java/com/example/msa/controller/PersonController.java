@@ -1,5 +1,10 @@
 package com.example.msa.controller;
 
+import com.example.export.ExportBusyException;
+import com.example.export.ExportFormat;
+import com.example.export.ExportResponse;
+import com.example.msa.admission.AdaptiveLimiter;
+import com.example.msa.admission.TooManyRequestsException;
 import com.example.msa.model.Person;
 import com.example.msa.service.PersonService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,6 +19,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
 import java.util.LinkedHashMap;
@@ -27,6 +34,7 @@ import java.util.UUID;
 public class PersonController {
 
     private final PersonService personService;
+    private final AdaptiveLimiter adaptiveLimiter;
 
     @PostMapping
     @Operation(
@@ -54,11 +62,29 @@ public class PersonController {
                                     }
                                     """)
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Pipeline sature, reessayer apres le delai du header Retry-After"
             )
     })
     public ResponseEntity<Person> createPerson(@RequestBody Person person) {
-        Person createdPerson = personService.createPerson(person);
-        return new ResponseEntity<>(createdPerson, HttpStatus.CREATED);
+        AdaptiveLimiter.Permit permit = adaptiveLimiter.tryAcquire()
+                .orElseThrow(() -> new TooManyRequestsException(adaptiveLimiter.getRetryAfterSeconds()));
+        AdaptiveLimiter.Outcome outcome = AdaptiveLimiter.Outcome.IGNORED;
+        try {
+            Person createdPerson = personService.createPerson(person);
+            outcome = AdaptiveLimiter.Outcome.SUCCESS;
+            return new ResponseEntity<>(createdPerson, HttpStatus.CREATED);
+        } catch (RuntimeException e) {
+            // Seule une surcharge reduit la limite: une requete invalide ne doit pas penaliser les autres
+            if (AdaptiveLimiter.isOverload(e)) {
+                outcome = AdaptiveLimiter.Outcome.OVERLOAD;
+            }
+            throw e;
+        } finally {
+            permit.release(outcome);
+        }
     }
 
     @GetMapping("/{id}")
@@ -113,6 +139,38 @@ public class PersonController {
         return ResponseEntity.ok(person);
     }
 
+    @GetMapping("/export")
+    @Operation(
+            summary = "Exporter toutes les personnes",
+            description = "Streame la table persons en CSV ou NDJSON sans charger les entites en memoire. "
+                    + "Avec gzip=true, la reponse est un fichier .gz (application/gzip).",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Export streame",
+                    content = {
+                            @Content(mediaType = "text/csv"),
+                            @Content(mediaType = "application/x-ndjson"),
+                            @Content(mediaType = "application/gzip")
+                    }
+            ),
+            @ApiResponse(responseCode = "400", description = "Format d'export inconnu"),
+            @ApiResponse(responseCode = "503", description = "Trop d'exports en cours")
+    })
+    public ResponseEntity<StreamingResponseBody> exportPersons(@RequestParam(defaultValue = "csv") String format,
+                                                               @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+        if (exportFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format d'export inconnu: " + format);
+        }
+        StreamingResponseBody body = personService.exportPersons(exportFormat, gzip)
+                .orElseThrow(ExportBusyException::new);
+
+        return ExportResponse.attachment("persons", exportFormat, gzip, body);
+    }
+
     private Map<String, Object> notFoundBody(String message, String path) {
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", Instant.now().toString());
@@ -4,8 +4,11 @@ import com.example.dtos.PersonCreatedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -13,8 +16,13 @@ public class KafkaProducer {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
-    public void sendPersonCreatedEvent(PersonCreatedEvent event) {
+    public CompletableFuture<SendResult<String, Object>> sendPersonCreatedEvent(PersonCreatedEvent event) {
         log.info("Envoi de PersonCreatedEvent pour la personne: {}", event.getPersonId());
-        kafkaTemplate.send("person-created-topic", event.getPersonId().toString(), event);
+        return kafkaTemplate.send("person-created-topic", event.getPersonId().toString(), event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Echec de l'envoi de PersonCreatedEvent pour la personne: {}", event.getPersonId(), ex);
+                    }
+                });
     }
-}
\ No newline at end of file
+}
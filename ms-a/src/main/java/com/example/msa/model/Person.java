@@ -1,21 +1,29 @@
 package com.example.msa.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "persons")
+@Table(name = "persons", indexes = {
+        @Index(name = "idx_persons_statut_next_publish_at", columnList = "statut, next_publish_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Person {
+public class Person implements Persistable<UUID> {
+    // Assigne par PersonService avant l'ecriture: l'id determine le shard
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
     @Column(nullable = false)
@@ -35,4 +43,61 @@ public class Person {
     private Status statut = Status.EN_ATTENTE;
 
     private Integer age;
-}
\ No newline at end of file
+
+    // Colonnes internes de republication: ni exposees ni acceptees par l'API
+    @JsonIgnore
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    // Date du dernier PersonCreatedEvent publie (creation ou reconciliation)
+    @JsonIgnore
+    @Column(name = "published_at")
+    private Instant publishedAt;
+
+    // Nombre de republications par la reconciliation
+    @JsonIgnore
+    @Column(name = "publish_attempts")
+    private Integer publishAttempts;
+
+    // Echeance a partir de laquelle la personne, si encore EN_ATTENTE, est republiee
+    @JsonIgnore
+    @Column(name = "next_publish_at")
+    private Instant nextPublishAt;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient boolean newEntity = true;
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    public void markNew() {
+        newEntity = true;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEntity = false;
+    }
+
+    @PrePersist
+    void onCreate() {
+        Instant now = Instant.now();
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        if (publishedAt == null) {
+            publishedAt = now;
+        }
+        if (publishAttempts == null) {
+            publishAttempts = 0;
+        }
+        if (nextPublishAt == null) {
+            nextPublishAt = now;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.msa.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record StalePerson(UUID id, LocalDate dateNaissance, Instant nextPublishAt, Integer publishAttempts) {
+}
@@ -1,11 +1,64 @@
 package com.example.msa.repository;
 
 import com.example.msa.model.Person;
+import com.example.msa.model.StalePerson;
+import com.example.msa.model.Status;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface PersonRepository extends JpaRepository<Person, UUID> {
-}
\ No newline at end of file
+
+    // Pagination par cle (nextPublishAt, id) sur l'index idx_persons_statut_next_publish_at:
+    // seules les lignes arrivees a echeance sont lues
+    @Query("""
+            select new com.example.msa.model.StalePerson(p.id, p.dateNaissance, p.nextPublishAt, p.publishAttempts)
+            from Person p
+            where p.statut = :statut
+              and p.nextPublishAt <= :now
+              and p.nextPublishAt >= :afterDue
+              and (p.nextPublishAt > :afterDue or p.id > :afterId)
+            order by p.nextPublishAt, p.id
+            """)
+    List<StalePerson> findDueAfter(@Param("statut") Status statut,
+                                   @Param("now") Instant now,
+                                   @Param("afterDue") Instant afterDue,
+                                   @Param("afterId") UUID afterId,
+                                   Limit limit);
+
+    // Lignes anterieures a l'ajout des colonnes de republication: a republier des maintenant
+    @Transactional
+    @Modifying
+    @Query("""
+            update Person p set p.nextPublishAt = :now, p.publishAttempts = 0
+            where p.statut = :statut and p.nextPublishAt is null
+            """)
+    int backfillNextPublishAt(@Param("statut") Status statut, @Param("now") Instant now);
+
+    List<Person> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    // Reservation avant envoi: seule l'instance MS-A qui voit encore l'echeance lue
+    // obtient 1 et republie la ligne, les autres passent a la suivante
+    @Transactional
+    @Modifying
+    @Query("""
+            update Person p
+            set p.publishedAt = :publishedAt, p.publishAttempts = :attempts, p.nextPublishAt = :nextPublishAt
+            where p.id = :id and p.statut = :statut and p.nextPublishAt = :seenDue
+            """)
+    int claimForRepublish(@Param("id") UUID id,
+                          @Param("statut") Status statut,
+                          @Param("seenDue") Instant seenDue,
+                          @Param("publishedAt") Instant publishedAt,
+                          @Param("attempts") int attempts,
+                          @Param("nextPublishAt") Instant nextPublishAt);
+}
@@ -0,0 +1,190 @@
+package com.example.msa.service;
+
+import com.example.dtos.PersonCreatedEvent;
+import com.example.msa.admission.ConsumerLagMonitor;
+import com.example.msa.kafka.KafkaProducer;
+import com.example.msa.model.StalePerson;
+import com.example.msa.model.Status;
+import com.example.msa.repository.PersonRepository;
+import com.example.msa.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Republie les PersonCreatedEvent des personnes restees EN_ATTENTE au-dela de leur
+ * echeance next_publish_at (envoi Kafka perdu, AgeEvent perdu...). Le scan ne lit que
+ * les lignes echues via l'index (statut, next_publish_at, id), chaque republication
+ * double le delai avant la suivante (RepublishBackoff) et l'envoi est limite en debit.
+ * Chaque ligne est reservee par une mise a jour conditionnelle sur l'echeance lue avant
+ * d'etre envoyee: avec plusieurs instances MS-A, une ligne n'est republiee qu'une fois
+ * par echeance. Un envoi en echec attend l'echeance suivante.
+ * Tant que MS-B a du retard sur person-created-topic, rien n'est republie: ses
+ * messages ne sont pas perdus, juste en file.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class PersonReconciliationService {
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final PersonRepository personRepository;
+    private final KafkaProducer kafkaProducer;
+    private final ShardRouter shardRouter;
+    private final ConsumerLagMonitor consumerLagMonitor;
+    private final RepublishBackoff republishBackoff;
+    private final int batchSize;
+    private final int maxPerRun;
+    private final long maxLag;
+    private final long publishIntervalNanos;
+
+    private final Counter republishedCounter;
+    private final Counter failedCounter;
+    private final Counter skippedCounter;
+    private final Timer runTimer;
+    private final AtomicInteger lastRunRepublished = new AtomicInteger();
+
+    private long nextSendNanos;
+
+    public PersonReconciliationService(PersonRepository personRepository,
+                                       KafkaProducer kafkaProducer,
+                                       ShardRouter shardRouter,
+                                       ConsumerLagMonitor consumerLagMonitor,
+                                       RepublishBackoff republishBackoff,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${reconcile.batch-size:500}") int batchSize,
+                                       @Value("${reconcile.max-per-run:10000}") int maxPerRun,
+                                       @Value("${reconcile.max-rate:200}") int maxRatePerSecond,
+                                       @Value("${reconcile.max-lag:${admission.lag-target:1000}}") long maxLag) {
+        this.personRepository = personRepository;
+        this.kafkaProducer = kafkaProducer;
+        this.shardRouter = shardRouter;
+        this.consumerLagMonitor = consumerLagMonitor;
+        this.republishBackoff = republishBackoff;
+        this.batchSize = batchSize;
+        this.maxPerRun = maxPerRun;
+        this.maxLag = maxLag;
+        this.publishIntervalNanos = 1_000_000_000L / Math.max(1, maxRatePerSecond);
+
+        this.republishedCounter = Counter.builder("persons.reconciliation.republished")
+                .description("PersonCreatedEvent republies (envoi Kafka confirme) pour des personnes bloquees EN_ATTENTE")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("persons.reconciliation.failed")
+                .description("Republications dont l'envoi Kafka a echoue")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("persons.reconciliation.skipped")
+                .description("Passages interrompus car MS-B est en retard sur person-created-topic")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("persons.reconciliation.duration")
+                .description("Duree d'un passage de reconciliation")
+                .register(meterRegistry);
+        meterRegistry.gauge("persons.reconciliation.last.run.republished", lastRunRepublished);
+    }
+
+    @Scheduled(fixedDelayString = "${reconcile.interval:PT1M}", initialDelayString = "${reconcile.initial-delay:PT1M}")
+    public void reconcile() {
+        Timer.Sample sample = Timer.start();
+        int republished = reconcileOnce();
+        sample.stop(runTimer);
+        lastRunRepublished.set(republished);
+        if (republished > 0) {
+            log.warn("Reconciliation: {} personnes EN_ATTENTE republiees", republished);
+        }
+    }
+
+    int reconcileOnce() {
+        if (consumerIsBehind()) {
+            skippedCounter.increment();
+            return 0;
+        }
+        Instant now = Instant.now();
+        nextSendNanos = System.nanoTime();
+        int total = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount() && total < maxPerRun; shard++) {
+            int budget = maxPerRun - total;
+            total += shardRouter.onShard(shard, () -> reconcileShard(now, budget));
+        }
+        return total;
+    }
+
+    private int reconcileShard(Instant now, int budget) {
+        int backfilled = personRepository.backfillNextPublishAt(Status.EN_ATTENTE, now);
+        if (backfilled > 0) {
+            log.info("Reconciliation: {} personnes EN_ATTENTE sans echeance rendues eligibles", backfilled);
+        }
+
+        Instant afterDue = Instant.EPOCH;
+        UUID afterId = MIN_UUID;
+        int total = 0;
+
+        while (total < budget) {
+            if (consumerIsBehind()) {
+                skippedCounter.increment();
+                break;
+            }
+            int limit = Math.min(batchSize, budget - total);
+            List<StalePerson> page = personRepository.findDueAfter(
+                    Status.EN_ATTENTE, now, afterDue, afterId, Limit.of(limit));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            for (StalePerson stale : page) {
+                long waitNanos = nextSendNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+
+                int attempts = (stale.publishAttempts() == null ? 0 : stale.publishAttempts()) + 1;
+                Instant publishedAt = Instant.now();
+                int claimed = personRepository.claimForRepublish(stale.id(), Status.EN_ATTENTE,
+                        stale.nextPublishAt(), publishedAt, attempts, republishBackoff.nextAttempt(publishedAt, attempts));
+                if (claimed == 0) {
+                    // Deja republiee par une autre instance, ou sortie d'EN_ATTENTE entre-temps
+                    continue;
+                }
+                nextSendNanos = Math.max(nextSendNanos, System.nanoTime()) + publishIntervalNanos;
+
+                kafkaProducer.sendPersonCreatedEvent(new PersonCreatedEvent(stale.id(), stale.dateNaissance()))
+                        .whenComplete((result, ex) -> {
+                            if (ex != null) {
+                                failedCounter.increment();
+                            } else {
+                                republishedCounter.increment();
+                            }
+                        });
+                total++;
+            }
+
+            StalePerson last = page.get(page.size() - 1);
+            afterDue = last.nextPublishAt();
+            afterId = last.id();
+            if (page.size() < limit) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private boolean consumerIsBehind() {
+        long lag = consumerLagMonitor.getLastLag();
+        if (lag > maxLag) {
+            log.info("Reconciliation suspendue: lag de MS-B {} > {}", lag, maxLag);
+            return true;
+        }
+        return false;
+    }
+}
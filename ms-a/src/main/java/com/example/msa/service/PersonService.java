@@ -1,40 +1,103 @@
 package com.example.msa.service;
 
+import com.example.dtos.AgeEvent;
 import com.example.dtos.PersonCreatedEvent;
+import com.example.export.ExportFormat;
+import com.example.export.ExportQuery;
+import com.example.export.JdbcExporter;
 import com.example.msa.kafka.KafkaProducer;
 import com.example.msa.model.Person;
+import com.example.msa.model.Status;
 import com.example.msa.repository.PersonRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.msa.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class PersonService {
 
+    private static final ExportQuery EXPORT_QUERY = new ExportQuery(
+            "SELECT id, nom, prenom, adresse, date_naissance, telephone, statut, age FROM persons",
+            new String[]{"id", "nom", "prenom", "adresse", "dateNaissance", "telephone", "statut", "age"},
+            Set.of("id"));
+
     private final PersonRepository personRepository;
     private final KafkaProducer kafkaProducer;
+    private final JdbcExporter jdbcExporter;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final RepublishBackoff republishBackoff;
+    private final Counter recoveredCounter;
+
+    public PersonService(PersonRepository personRepository,
+                         KafkaProducer kafkaProducer,
+                         JdbcExporter jdbcExporter,
+                         ShardRouter shardRouter,
+                         TransactionTemplate transactionTemplate,
+                         RepublishBackoff republishBackoff,
+                         MeterRegistry meterRegistry) {
+        this.personRepository = personRepository;
+        this.kafkaProducer = kafkaProducer;
+        this.jdbcExporter = jdbcExporter;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.republishBackoff = republishBackoff;
+        this.recoveredCounter = Counter.builder("persons.reconciliation.recovered")
+                .description("Personnes sorties d'EN_ATTENTE apres au moins une republication")
+                .register(meterRegistry);
+    }
 
-    @Transactional
+    // Le shard est choisi avant d'ouvrir la transaction: d'ou TransactionTemplate plutot que @Transactional
     public Person createPerson(Person person) {
-        Person savedPerson = personRepository.save(person);
-        log.info("Personne crée avec l'ID: {}", savedPerson.getId());
+        Instant now = Instant.now();
+        person.setId(UUID.randomUUID());
+        person.setCreatedAt(now);
+        person.setPublishedAt(now);
+        person.setPublishAttempts(0);
+        person.setNextPublishAt(republishBackoff.nextAttempt(now, 0));
+        person.markNew();
+        return shardRouter.onShardFor(person.getId(), () -> transactionTemplate.execute(status -> {
+            Person savedPerson = personRepository.save(person);
+            log.info("Personne crée avec l'ID: {}", savedPerson.getId());
 
-        PersonCreatedEvent event = new PersonCreatedEvent(
-                savedPerson.getId(),
-                savedPerson.getDateNaissance()
-        );
-        kafkaProducer.sendPersonCreatedEvent(event);
+            PersonCreatedEvent event = new PersonCreatedEvent(
+                    savedPerson.getId(),
+                    savedPerson.getDateNaissance()
+            );
+            kafkaProducer.sendPersonCreatedEvent(event);
 
-        return savedPerson;
+            return savedPerson;
+        }));
+    }
+
+    public Optional<Person> applyAgeEvent(AgeEvent event) {
+        return shardRouter.onShardFor(event.getPersonId(), () -> transactionTemplate.execute(status ->
+                personRepository.findById(event.getPersonId()).map(person -> {
+                    if (person.getStatut() == Status.EN_ATTENTE
+                            && person.getPublishAttempts() != null && person.getPublishAttempts() > 0) {
+                        recoveredCounter.increment();
+                    }
+                    person.setAge(event.getAge());
+                    person.setStatut("TERMINE".equals(event.getStatus()) ? Status.TERMINE : Status.ECHEC);
+                    return personRepository.save(person);
+                })));
     }
 
     public Optional<Person> getPersonById(UUID id) {
-        return personRepository.findById(id);
+        return shardRouter.onShardFor(id, () -> personRepository.findById(id));
+    }
+
+    public Optional<StreamingResponseBody> exportPersons(ExportFormat format, boolean gzip) {
+        return jdbcExporter.open(EXPORT_QUERY, format, gzip);
     }
 }
\ No newline at end of file
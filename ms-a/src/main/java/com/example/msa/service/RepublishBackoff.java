@@ -0,0 +1,35 @@
+package com.example.msa.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Delai avant la prochaine publication d'une personne encore EN_ATTENTE:
+ * stale-after apres la creation, puis double a chaque republication, plafonne a max-backoff.
+ */
+@Component
+public class RepublishBackoff {
+
+    private final Duration staleAfter;
+    private final Duration maxBackoff;
+
+    public RepublishBackoff(@Value("${reconcile.stale-after:PT5M}") Duration staleAfter,
+                            @Value("${reconcile.max-backoff:PT6H}") Duration maxBackoff) {
+        this.staleAfter = staleAfter;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * @param attempts nombre de republications deja effectuees (0 a la creation)
+     */
+    public Instant nextAttempt(Instant from, int attempts) {
+        Duration delay = staleAfter;
+        for (int i = 0; i < attempts && delay.compareTo(maxBackoff) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return from.plus(delay.compareTo(maxBackoff) < 0 ? delay : maxBackoff);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.msa.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "shards")
+public class ShardProperties {
+
+    private List<ShardDataSource> datasources = new ArrayList<>();
+
+    private int rebalanceBatchSize = 500;
+
+    @Data
+    public static class ShardDataSource {
+        private String url;
+        // URL du pool d'export (ex: avec useCursorFetch=true), url par defaut
+        private String exportUrl;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.msa.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Outil de rebalancing: lance avec --shards.rebalance=true, redistribue les
+ * personnes sur les shards configures puis arrete l'application. Les listeners
+ * Kafka et les taches planifiees ne sont pas demarres dans ce mode
+ * (KafkaConfig, SchedulingConfig) ; les instances MS-A doivent etre arretees.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "shards.rebalance", havingValue = "true")
+public class ShardRebalanceRunner implements ApplicationRunner {
+
+    private final ShardRebalancer shardRebalancer;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<Integer, Integer> moved = shardRebalancer.rebalance();
+        log.info("Rebalancing termine: {} personnes deplacees {}",
+                moved.values().stream().mapToInt(Integer::intValue).sum(), moved);
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
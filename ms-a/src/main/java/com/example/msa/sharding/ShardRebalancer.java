@@ -0,0 +1,90 @@
+package com.example.msa.sharding;
+
+import com.example.msa.model.Person;
+import com.example.msa.repository.PersonRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Deplace les personnes qui ne sont plus sur leur shard apres l'ajout d'un shard.
+ * Chaque ligne est d'abord inseree sur le shard cible puis supprimee du shard
+ * source: une interruption laisse au pire un doublon, que la relance suivante
+ * ne recopie pas et supprime de la source.
+ */
+@Component
+@Slf4j
+public class ShardRebalancer {
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final PersonRepository personRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ShardRebalancer(PersonRepository personRepository,
+                           ShardRouter shardRouter,
+                           TransactionTemplate transactionTemplate,
+                           ShardProperties shardProperties) {
+        this.personRepository = personRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = shardProperties.getRebalanceBatchSize();
+    }
+
+    /**
+     * @return nombre de personnes deplacees, par shard source
+     */
+    public Map<Integer, Integer> rebalance() {
+        Map<Integer, Integer> moved = new LinkedHashMap<>();
+        for (int source = 0; source < shardRouter.getShardCount(); source++) {
+            moved.put(source, rebalanceShard(source));
+        }
+        return moved;
+    }
+
+    private int rebalanceShard(int source) {
+        UUID afterId = MIN_UUID;
+        int moved = 0;
+        while (true) {
+            UUID cursor = afterId;
+            List<Person> page = shardRouter.onShard(source,
+                    () -> personRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(batchSize)));
+            if (page.isEmpty()) {
+                break;
+            }
+            for (Person person : page) {
+                int target = shardRouter.shardFor(person.getId());
+                if (target != source) {
+                    move(person, source, target);
+                    moved++;
+                }
+            }
+            afterId = page.get(page.size() - 1).getId();
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+        log.info("Shard {}: {} personnes deplacees", source, moved);
+        return moved;
+    }
+
+    private void move(Person person, int source, int target) {
+        UUID id = person.getId();
+        shardRouter.onShard(target, () -> transactionTemplate.executeWithoutResult(status -> {
+            if (!personRepository.existsById(id)) {
+                person.markNew();
+                personRepository.save(person);
+            }
+        }));
+        shardRouter.onShard(source, () -> transactionTemplate.executeWithoutResult(status ->
+                personRepository.deleteById(id)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.msa.sharding;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Choisit le shard d'une personne a partir de son id (jump consistent hash,
+ * seule ~1/N des lignes change de shard quand on passe de N-1 a N shards) et
+ * positionne ce shard pour le thread courant le temps d'un traitement.
+ * Le shard doit etre choisi avant l'ouverture de la transaction ; une fois le contexte
+ * demarre, tout acces a la base hors onShard echoue (ShardRoutingDataSource).
+ */
+@Component
+public class ShardRouter {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final int shardCount;
+
+    public ShardRouter(ShardProperties shardProperties) {
+        this.shardCount = shardProperties.getDatasources().size();
+        if (shardCount == 0) {
+            throw new IllegalStateException("Aucun shard configure (shards.datasources)");
+        }
+    }
+
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardFor(UUID id) {
+        return jumpConsistentHash(id.getMostSignificantBits() ^ id.getLeastSignificantBits(), shardCount);
+    }
+
+    public <T> T onShardFor(UUID id, Supplier<T> action) {
+        return onShard(shardFor(id), action);
+    }
+
+    public void onShard(int shard, Runnable action) {
+        onShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T onShard(int shard, Supplier<T> action) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Shard inconnu: " + shard);
+        }
+        Integer previous = CURRENT_SHARD.get();
+        // Une transaction ouverte garde la connexion de son shard (ou du shard 0 si aucun
+        // n'etait positionne): en changer ferait ecrire ailleurs que prevu
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && (previous == null || previous != shard)) {
+            throw new IllegalStateException("Changement de shard " + previous + " -> " + shard + " dans une transaction");
+        }
+        CURRENT_SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+
+    static int jumpConsistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.msa.sharding;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Aiguille chaque demande de connexion vers le shard positionne par ShardRouter
+ * sur le thread courant. Sans shard positionne, le shard 0 n'est utilise que pendant
+ * le demarrage et l'arret du contexte (schema, metadonnees Hibernate) ; une fois le
+ * contexte demarre, un acces sans ShardRouter.onShard echoue au lieu de lire ou
+ * d'ecrire silencieusement sur le mauvais shard.
+ * Les pools des shards ne sont pas des beans: ils sont fermes avec cette datasource
+ * (methode close, appelee a l'arret du contexte ou par son proprietaire).
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable, SmartLifecycle {
+
+    private final boolean defaultShardUntilStarted;
+    private volatile boolean running;
+
+    /**
+     * @param defaultShardUntilStarted autoriser le shard 0 sans onShard tant que le
+     *                                 contexte n'est pas demarre (datasource principale)
+     */
+    public ShardRoutingDataSource(boolean defaultShardUntilStarted) {
+        this.defaultShardUntilStarted = defaultShardUntilStarted;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardRouter.currentShard();
+        if (shard == null && (running || !defaultShardUntilStarted)) {
+            throw new IllegalStateException("Acces a la base sans shard positionne: passer par ShardRouter.onShard");
+        }
+        return shard;
+    }
+
+    // Pas de delegation au shard courant: ces appels de Spring Boot (metriques, health)
+    // n'ont pas de shard positionne
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ShardRoutingDataSource n'encapsule pas " + iface.getName());
+    }
+
+    // Demarre avant les listeners Kafka, le serveur web et les taches planifiees, s'arrete apres eux
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.msa.sharding;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hibernate n'applique ddl-auto que sur le shard par defaut. Rejoue la meme action
+ * sur les autres shards au demarrage, avec la configuration effective de la
+ * SessionFactory: create/create-drop recreent les tables, update execute une mise a
+ * jour du schema, validate echoue si un shard n'est pas conforme, none ne fait rien.
+ * Une valeur inconnue fait echouer le demarrage. Pour create-drop, les tables sont
+ * supprimees a l'arret.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShardSchemaInitializer {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ShardSchemaMetadata shardSchemaMetadata;
+    private final ShardRouter shardRouter;
+
+    private final List<Runnable> dropActions = new ArrayList<>();
+
+    @PostConstruct
+    public void initialize() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Map<String, Object> settings = sessionFactory.getProperties();
+        for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+            int current = shard;
+            log.info("Schema du shard {}: {}={}", shard, AvailableSettings.HBM2DDL_AUTO,
+                    settings.getOrDefault(AvailableSettings.HBM2DDL_AUTO, "none"));
+            shardRouter.onShard(shard, () -> SchemaManagementToolCoordinator.process(
+                    shardSchemaMetadata.getMetadata(), sessionFactory.getServiceRegistry(), settings,
+                    action -> registerDrop(current, action, sessionFactory)));
+        }
+    }
+
+    @PreDestroy
+    public void drop() {
+        dropActions.forEach(Runnable::run);
+        dropActions.clear();
+    }
+
+    private void registerDrop(int shard, DelayedDropAction action, SessionFactoryImplementor sessionFactory) {
+        dropActions.add(() -> shardRouter.onShard(shard, () -> action.perform(sessionFactory.getServiceRegistry())));
+    }
+}
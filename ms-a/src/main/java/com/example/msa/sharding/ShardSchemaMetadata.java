@@ -0,0 +1,47 @@
+package com.example.msa.sharding;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conserve le modele de mapping construit par Hibernate au demarrage, necessaire
+ * a ShardSchemaInitializer pour appliquer ddl-auto sur les autres shards.
+ */
+@Component
+public class ShardSchemaMetadata implements HibernatePropertiesCustomizer, Integrator {
+
+    private volatile Metadata metadata;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = null;
+    }
+
+    Metadata getMetadata() {
+        if (metadata == null) {
+            throw new IllegalStateException("Metadata Hibernate indisponible (EntityManagerFactory non initialisee)");
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.msa.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveLimiter limiter(int initialLimit) {
+        return new AdaptiveLimiter(new SimpleMeterRegistry(), initialLimit, 1, 200,
+                Duration.ofMillis(200), 1000, 0.9, Duration.ofSeconds(1), 5, clock::get);
+    }
+
+    private AdaptiveLimiter.Permit acquire(AdaptiveLimiter limiter) {
+        return limiter.tryAcquire().orElseThrow();
+    }
+
+    @Test
+    void fastSuccessUsingHalfTheLimitIncreasesByOne() {
+        AdaptiveLimiter limiter = limiter(4);
+        acquire(limiter);
+        AdaptiveLimiter.Permit second = acquire(limiter);
+
+        clock.addAndGet(50 * MILLIS);
+        second.release(AdaptiveLimiter.Outcome.SUCCESS);
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void fastSuccessBelowHalfTheLimitKeepsLimit() {
+        AdaptiveLimiter limiter = limiter(10);
+        AdaptiveLimiter.Permit permit = acquire(limiter);
+
+        clock.addAndGet(50 * MILLIS);
+        permit.release(AdaptiveLimiter.Outcome.SUCCESS);
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void slowSuccessDecreasesMultiplicatively() {
+        AdaptiveLimiter limiter = limiter(10);
+        AdaptiveLimiter.Permit permit = acquire(limiter);
+
+        clock.addAndGet(300 * MILLIS);
+        permit.release(AdaptiveLimiter.Outcome.SUCCESS);
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void overloadDecreasesAndIgnoredKeepsLimit() {
+        AdaptiveLimiter limiter = limiter(10);
+        acquire(limiter).release(AdaptiveLimiter.Outcome.IGNORED);
+        assertEquals(10, limiter.getLimit());
+
+        acquire(limiter).release(AdaptiveLimiter.Outcome.OVERLOAD);
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void releaseIsIdempotent() {
+        AdaptiveLimiter limiter = limiter(10);
+        acquire(limiter);
+        AdaptiveLimiter.Permit permit = acquire(limiter);
+
+        permit.release(AdaptiveLimiter.Outcome.IGNORED);
+        permit.release(AdaptiveLimiter.Outcome.IGNORED);
+
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void rejectsOnceLimitIsReached() {
+        AdaptiveLimiter limiter = limiter(2);
+        acquire(limiter);
+        acquire(limiter);
+
+        assertTrue(limiter.tryAcquire().isEmpty());
+    }
+
+    @Test
+    void limitNeverGoesBelowMinimum() {
+        AdaptiveLimiter limiter = limiter(3);
+        for (int i = 0; i < 50; i++) {
+            acquire(limiter).release(AdaptiveLimiter.Outcome.OVERLOAD);
+        }
+
+        assertEquals(1, limiter.getLimit());
+        assertTrue(limiter.tryAcquire().isPresent());
+    }
+
+    @Test
+    void lagAboveTargetDecreasesAndBlocksIncrease() {
+        AdaptiveLimiter limiter = limiter(4);
+        limiter.onLagSample(5000);
+        assertEquals(3, limiter.getLimit());
+        assertEquals(5, limiter.getRetryAfterSeconds());
+
+        acquire(limiter);
+        AdaptiveLimiter.Permit second = acquire(limiter);
+        second.release(AdaptiveLimiter.Outcome.SUCCESS);
+        assertEquals(3, limiter.getLimit());
+
+        limiter.onLagSample(10);
+        AdaptiveLimiter.Permit third = acquire(limiter);
+        third.release(AdaptiveLimiter.Outcome.SUCCESS);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(1, limiter.getRetryAfterSeconds());
+    }
+
+    @Test
+    void unknownLagDoesNotChangeLimit() {
+        AdaptiveLimiter limiter = limiter(10);
+        limiter.onLagSample(-1);
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void onlyOverloadErrorsCountAsOverload() {
+        assertTrue(AdaptiveLimiter.isOverload(new CannotCreateTransactionException("pool epuise")));
+        assertTrue(AdaptiveLimiter.isOverload(new RuntimeException(new TimeoutException())));
+        assertFalse(AdaptiveLimiter.isOverload(new DataIntegrityViolationException("nom null")));
+        assertFalse(AdaptiveLimiter.isOverload(new IllegalArgumentException()));
+    }
+
+    /**
+     * Serveur simule pouvant traiter 10 creations en 50 ms ; au-dela la latence croit
+     * lineairement. 200 clients concurrents donneraient 1 s de latence sans limite.
+     */
+    @Test
+    void boundsLatencyUnderSustainedOverload() {
+        AdaptiveLimiter limiter = limiter(20);
+        int capacity = 10;
+        int offered = 200;
+        long maxLatency = 0;
+        long rejected = 0;
+
+        for (int round = 0; round < 300; round++) {
+            List<AdaptiveLimiter.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < offered; i++) {
+                limiter.tryAcquire().ifPresent(permits::add);
+            }
+            rejected += offered - permits.size();
+            long latency = permits.size() <= capacity ? 50 : 50L * permits.size() / capacity;
+            if (round >= 50) {
+                maxLatency = Math.max(maxLatency, latency);
+            }
+
+            clock.addAndGet(latency * MILLIS);
+            permits.forEach(permit -> permit.release(AdaptiveLimiter.Outcome.SUCCESS));
+        }
+
+        assertTrue(maxLatency <= 350, "latence max " + maxLatency + " ms");
+        assertTrue(rejected > 0);
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.msa.service;
+
+import com.example.msa.admission.ConsumerLagMonitor;
+import com.example.msa.kafka.KafkaProducer;
+import com.example.msa.model.Person;
+import com.example.msa.model.StalePerson;
+import com.example.msa.model.Status;
+import com.example.msa.repository.PersonRepository;
+import com.example.msa.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconciliation sur deux shards H2 en memoire, Kafka simule. Le passage planifie est
+ * repousse (initial-delay): les tests appellent reconcileOnce directement.
+ */
+@SpringBootTest(properties = {
+        "shards.datasources[0].url=jdbc:h2:mem:reconcile_it_0;DB_CLOSE_DELAY=-1",
+        "shards.datasources[0].driver-class-name=org.h2.Driver",
+        "shards.datasources[0].username=sa",
+        "shards.datasources[0].password=",
+        "shards.datasources[1].url=jdbc:h2:mem:reconcile_it_1;DB_CLOSE_DELAY=-1",
+        "shards.datasources[1].driver-class-name=org.h2.Driver",
+        "shards.datasources[1].username=sa",
+        "shards.datasources[1].password=",
+        "reconcile.enabled=true",
+        "reconcile.initial-delay=PT1H",
+        "reconcile.batch-size=3",
+        "reconcile.max-rate=100000",
+        "reconcile.stale-after=PT5M",
+        "reconcile.max-backoff=PT6H",
+        "spring.kafka.listener.auto-startup=false",
+        "spring.kafka.admin.auto-create=false"
+})
+@ActiveProfiles("h2")
+class PersonReconciliationIntegrationTest {
+
+    private static final int SHARDS = 2;
+
+    @Autowired
+    private PersonReconciliationService reconciliationService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private KafkaProducer kafkaProducer;
+
+    @MockitoBean
+    private ConsumerLagMonitor consumerLagMonitor;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            shardRouter.onShard(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                    personRepository.deleteAllInBatch()));
+        }
+        when(kafkaProducer.sendPersonCreatedEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void findDueAfterPagesAcrossTiesWithoutSkippingOrRepeating() {
+        Instant tie = now.minus(Duration.ofMinutes(10));
+        Set<UUID> expected = new HashSet<>();
+        List<UUID> earliest = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            UUID id = insert(0, Status.EN_ATTENTE, tie.minus(Duration.ofMinutes(1)), 0);
+            earliest.add(id);
+            expected.add(id);
+        }
+        for (int i = 0; i < 7; i++) {
+            expected.add(insert(0, Status.EN_ATTENTE, tie, 0));
+        }
+        insert(0, Status.EN_ATTENTE, now.plus(Duration.ofMinutes(1)), 0);
+        insert(0, Status.TERMINE, tie, 0);
+
+        List<UUID> seen = new ArrayList<>();
+        Instant afterDue = Instant.EPOCH;
+        UUID afterId = new UUID(0L, 0L);
+        while (true) {
+            Instant cursorDue = afterDue;
+            UUID cursorId = afterId;
+            List<StalePerson> page = shardRouter.onShard(0, () -> personRepository.findDueAfter(
+                    Status.EN_ATTENTE, now, cursorDue, cursorId, Limit.of(3)));
+            page.forEach(stale -> seen.add(stale.id()));
+            if (page.size() < 3) {
+                break;
+            }
+            StalePerson last = page.get(page.size() - 1);
+            afterDue = last.nextPublishAt();
+            afterId = last.id();
+        }
+
+        assertEquals(expected.size(), seen.size(), "doublon ou ligne manquante: " + seen);
+        assertEquals(expected, new HashSet<>(seen));
+        assertEquals(new HashSet<>(earliest), new HashSet<>(seen.subList(0, 2)));
+    }
+
+    @Test
+    void legacyRowsWithoutDueTimeAreRepublishedOnFirstPass() {
+        UUID id = UUID.randomUUID();
+        int shard = shardRouter.shardFor(id);
+        insert(shard, id, Status.EN_ATTENTE, now.plus(Duration.ofHours(1)), 0);
+        shardRouter.onShard(shard, () -> jdbcTemplate.update(
+                "update persons set next_publish_at = null, publish_attempts = null where id = ?", id));
+
+        assertEquals(1, reconciliationService.reconcileOnce());
+
+        verify(kafkaProducer).sendPersonCreatedEvent(argThat(event -> event.getPersonId().equals(id)));
+        Person person = load(id);
+        assertEquals(1, person.getPublishAttempts());
+        assertEquals(Duration.ofMinutes(10), Duration.between(person.getPublishedAt(), person.getNextPublishAt()));
+    }
+
+    @Test
+    void eachRepublicationDoublesTheRowDelayUpToTheCap() {
+        Instant due = now.minus(Duration.ofMinutes(1));
+        UUID fresh = insertOnOwner(due, 0);
+        UUID retried = insertOnOwner(due, 3);
+        UUID exhausted = insertOnOwner(due, 10);
+
+        assertEquals(3, reconciliationService.reconcileOnce());
+
+        assertEquals(Duration.ofMinutes(10), delayAfterPublish(fresh));
+        assertEquals(Duration.ofMinutes(80), delayAfterPublish(retried));
+        assertEquals(Duration.ofHours(6), delayAfterPublish(exhausted));
+        assertEquals(1, load(fresh).getPublishAttempts());
+        assertEquals(4, load(retried).getPublishAttempts());
+        assertEquals(11, load(exhausted).getPublishAttempts());
+
+        // Plus rien n'est echu: un second passage ne republie rien
+        assertEquals(0, reconciliationService.reconcileOnce());
+        verify(kafkaProducer, times(3)).sendPersonCreatedEvent(any());
+    }
+
+    @Test
+    void rowAlreadyClaimedByAnotherInstanceIsNotSentAgain() {
+        UUID id = insertOnOwner(now.minus(Duration.ofMinutes(1)), 0);
+        int shard = shardRouter.shardFor(id);
+        StalePerson stale = shardRouter.onShard(shard, () -> personRepository.findDueAfter(
+                Status.EN_ATTENTE, now, Instant.EPOCH, new UUID(0L, 0L), Limit.of(10))).get(0);
+
+        int first = shardRouter.onShard(shard, () -> personRepository.claimForRepublish(
+                id, Status.EN_ATTENTE, stale.nextPublishAt(), now, 1, now.plus(Duration.ofMinutes(10))));
+        int second = shardRouter.onShard(shard, () -> personRepository.claimForRepublish(
+                id, Status.EN_ATTENTE, stale.nextPublishAt(), now, 1, now.plus(Duration.ofMinutes(10))));
+
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals(0, reconciliationService.reconcileOnce());
+    }
+
+    private UUID insertOnOwner(Instant nextPublishAt, int attempts) {
+        UUID id = UUID.randomUUID();
+        insert(shardRouter.shardFor(id), id, Status.EN_ATTENTE, nextPublishAt, attempts);
+        return id;
+    }
+
+    private UUID insert(int shard, Status statut, Instant nextPublishAt, int attempts) {
+        UUID id = UUID.randomUUID();
+        insert(shard, id, statut, nextPublishAt, attempts);
+        return id;
+    }
+
+    private void insert(int shard, UUID id, Status statut, Instant nextPublishAt, int attempts) {
+        Person person = new Person();
+        person.setId(id);
+        person.setNom("Martin");
+        person.setPrenom("Paul");
+        person.setDateNaissance(LocalDate.of(1985, 3, 2));
+        person.setStatut(statut);
+        person.setPublishAttempts(attempts);
+        person.setNextPublishAt(nextPublishAt);
+        person.markNew();
+        shardRouter.onShard(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                personRepository.save(person)));
+    }
+
+    private Person load(UUID id) {
+        return shardRouter.onShardFor(id, () -> personRepository.findById(id)).orElseThrow();
+    }
+
+    private Duration delayAfterPublish(UUID id) {
+        Person person = load(id);
+        assertTrue(person.getPublishedAt().isAfter(now.minusSeconds(1)));
+        return Duration.between(person.getPublishedAt(), person.getNextPublishAt());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.msa.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RepublishBackoffTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final RepublishBackoff backoff = new RepublishBackoff(Duration.ofMinutes(5), Duration.ofHours(1));
+
+    @Test
+    void firstAttemptWaitsStaleAfter() {
+        assertEquals(NOW.plus(Duration.ofMinutes(5)), backoff.nextAttempt(NOW, 0));
+    }
+
+    @Test
+    void delayDoublesWithEachAttempt() {
+        assertEquals(NOW.plus(Duration.ofMinutes(10)), backoff.nextAttempt(NOW, 1));
+        assertEquals(NOW.plus(Duration.ofMinutes(20)), backoff.nextAttempt(NOW, 2));
+        assertEquals(NOW.plus(Duration.ofMinutes(40)), backoff.nextAttempt(NOW, 3));
+    }
+
+    @Test
+    void delayIsCappedAtMaxBackoff() {
+        assertEquals(NOW.plus(Duration.ofHours(1)), backoff.nextAttempt(NOW, 4));
+        assertEquals(NOW.plus(Duration.ofHours(1)), backoff.nextAttempt(NOW, 1000));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.msa.sharding;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRouterTest {
+
+    private static final int KEYS = 20_000;
+
+    private static ShardRouter router(int shards) {
+        ShardProperties properties = new ShardProperties();
+        for (int i = 0; i < shards; i++) {
+            properties.getDatasources().add(new ShardProperties.ShardDataSource());
+        }
+        return new ShardRouter(properties);
+    }
+
+    @Test
+    void addingAShardOnlyMovesRowsToTheNewShard() {
+        Random random = new Random(42);
+        for (int shards = 2; shards <= 8; shards++) {
+            ShardRouter before = router(shards - 1);
+            ShardRouter after = router(shards);
+            int moved = 0;
+            for (int i = 0; i < KEYS; i++) {
+                UUID id = new UUID(random.nextLong(), random.nextLong());
+                int oldShard = before.shardFor(id);
+                int newShard = after.shardFor(id);
+                if (newShard != oldShard) {
+                    assertEquals(shards - 1, newShard, "ligne deplacee ailleurs que sur le nouveau shard");
+                    moved++;
+                }
+            }
+            double expected = (double) KEYS / shards;
+            assertTrue(Math.abs(moved - expected) < expected * 0.1,
+                    "passage a " + shards + " shards: " + moved + " lignes deplacees");
+        }
+    }
+
+    @Test
+    void shardForIsStableAndEven() {
+        ShardRouter router = router(4);
+        Random random = new Random(7);
+        int[] counts = new int[4];
+        for (int i = 0; i < KEYS; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            int shard = router.shardFor(id);
+            assertEquals(shard, router(4).shardFor(id));
+            counts[shard]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - KEYS / 4) < KEYS / 40, "repartition inegale: " + count);
+        }
+    }
+
+    @Test
+    void onShardRestoresPreviousShard() {
+        ShardRouter router = router(3);
+
+        router.onShard(1, () -> {
+            assertEquals(1, ShardRouter.currentShard());
+            router.onShard(2, () -> assertEquals(2, ShardRouter.currentShard()));
+            assertEquals(1, ShardRouter.currentShard());
+        });
+
+        assertNull(ShardRouter.currentShard());
+    }
+
+    @Test
+    void onShardRestoresPreviousShardWhenActionFails() {
+        ShardRouter router = router(2);
+
+        assertThrows(IllegalStateException.class, () -> router.onShard(1, () -> {
+            throw new IllegalStateException("echec");
+        }));
+
+        assertNull(ShardRouter.currentShard());
+    }
+
+    @Test
+    void rejectsShardChangeInsideTransaction() {
+        ShardRouter router = router(2);
+
+        router.onShard(0, () -> {
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                router.onShard(0, () -> { });
+                assertThrows(IllegalStateException.class, () -> router.onShard(1, () -> { }));
+            } finally {
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+        });
+    }
+
+    @Test
+    void rejectsShardSelectionInsideTransactionWithoutShard() {
+        ShardRouter router = router(2);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class, () -> router.onShard(0, () -> { }));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    void rejectsUnknownShard() {
+        ShardRouter router = router(2);
+
+        assertThrows(IllegalArgumentException.class, () -> router.onShard(2, () -> { }));
+        assertThrows(IllegalArgumentException.class, () -> router.onShard(-1, () -> { }));
+    }
+
+    @Test
+    void requiresAtLeastOneShard() {
+        assertThrows(IllegalStateException.class, () -> router(0));
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.msa.sharding;
+
+import com.example.msa.admission.ConsumerLagMonitor;
+import com.example.msa.kafka.KafkaProducer;
+import com.example.msa.model.Person;
+import com.example.msa.repository.PersonRepository;
+import com.example.msa.service.PersonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trois shards H2 en memoire. Les lignes "existantes" sont placees comme avec
+ * deux shards, puis ShardRebalancer les redistribue sur les trois.
+ */
+@SpringBootTest(properties = {
+        "shards.datasources[0].url=jdbc:h2:mem:sharding_it_0;DB_CLOSE_DELAY=-1",
+        "shards.datasources[0].driver-class-name=org.h2.Driver",
+        "shards.datasources[0].username=sa",
+        "shards.datasources[0].password=",
+        "shards.datasources[1].url=jdbc:h2:mem:sharding_it_1;DB_CLOSE_DELAY=-1",
+        "shards.datasources[1].driver-class-name=org.h2.Driver",
+        "shards.datasources[1].username=sa",
+        "shards.datasources[1].password=",
+        "shards.datasources[2].url=jdbc:h2:mem:sharding_it_2;DB_CLOSE_DELAY=-1",
+        "shards.datasources[2].driver-class-name=org.h2.Driver",
+        "shards.datasources[2].username=sa",
+        "shards.datasources[2].password=",
+        "shards.rebalance-batch-size=7",
+        "reconcile.enabled=false",
+        "spring.kafka.listener.auto-startup=false",
+        "spring.kafka.admin.auto-create=false"
+})
+@ActiveProfiles("h2")
+class ShardingIntegrationTest {
+
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private KafkaProducer kafkaProducer;
+
+    @MockitoBean
+    private ConsumerLagMonitor consumerLagMonitor;
+
+    private final Random random = new Random(1234);
+
+    @BeforeEach
+    void clearShards() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            shardRouter.onShard(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                    personRepository.deleteAllInBatch()));
+        }
+    }
+
+    @Test
+    void createPersonWritesOnOwningShardOnly() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(personService.createPerson(newPerson()).getId());
+        }
+
+        for (UUID id : ids) {
+            int owner = shardRouter.shardFor(id);
+            for (int shard = 0; shard < SHARDS; shard++) {
+                assertEquals(shard == owner, existsOn(shard, id), "personne " + id + " sur le shard " + shard);
+            }
+            assertTrue(personService.getPersonById(id).isPresent());
+        }
+    }
+
+    @Test
+    void dataAccessWithoutShardFailsOnceStarted() {
+        UUID id = UUID.randomUUID();
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> personRepository.findById(id));
+
+        Throwable cause = error;
+        while (cause != null && !(cause instanceof IllegalStateException)) {
+            cause = cause.getCause();
+        }
+        assertTrue(cause != null, "acces sans shard accepte: " + error);
+        assertThrows(RuntimeException.class, () -> transactionTemplate.executeWithoutResult(status -> { }));
+    }
+
+    @Test
+    void rebalanceMovesRowsPlacedWithTwoShardsToTheNewShard() {
+        List<UUID> ids = insertWithTwoShardPlacement(100);
+        long misplaced = ids.stream().filter(id -> shardRouter.shardFor(id) != twoShardOwner(id)).count();
+        assertTrue(misplaced > 0);
+
+        int moved = shardRebalancer.rebalance().values().stream().mapToInt(Integer::intValue).sum();
+
+        assertEquals(misplaced, moved);
+        assertEachRowOnceOnItsShard(ids);
+    }
+
+    @Test
+    void rebalanceCompletesAfterAnInterruptedRun() {
+        List<UUID> ids = insertWithTwoShardPlacement(100);
+        List<UUID> misplaced = ids.stream().filter(id -> shardRouter.shardFor(id) != twoShardOwner(id)).toList();
+        assertTrue(misplaced.size() >= 3);
+
+        // Etat laisse par une interruption: une ligne deplacee, une copiee mais pas encore
+        // supprimee de la source, les autres non traitees
+        UUID done = misplaced.get(0);
+        UUID copied = misplaced.get(1);
+        copy(done);
+        delete(twoShardOwner(done), done);
+        copy(copied);
+        assertTrue(existsOn(twoShardOwner(copied), copied));
+        assertTrue(existsOn(shardRouter.shardFor(copied), copied));
+
+        shardRebalancer.rebalance();
+
+        assertEachRowOnceOnItsShard(ids);
+        assertFalse(existsOn(twoShardOwner(copied), copied));
+        assertEquals(0, shardRebalancer.rebalance().values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private List<UUID> insertWithTwoShardPlacement(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            Person person = newPerson();
+            person.setId(id);
+            save(twoShardOwner(id), person);
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private void copy(UUID id) {
+        Person person = shardRouter.onShard(twoShardOwner(id), () -> personRepository.findById(id).orElseThrow());
+        save(shardRouter.shardFor(id), person);
+    }
+
+    private void save(int shard, Person person) {
+        person.markNew();
+        shardRouter.onShard(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                personRepository.save(person)));
+    }
+
+    private void delete(int shard, UUID id) {
+        shardRouter.onShard(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                personRepository.deleteById(id)));
+    }
+
+    private boolean existsOn(int shard, UUID id) {
+        return shardRouter.onShard(shard, () -> personRepository.existsById(id));
+    }
+
+    private void assertEachRowOnceOnItsShard(List<UUID> ids) {
+        long total = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            total += shardRouter.onShard(shard, () -> personRepository.count());
+        }
+        assertEquals(ids.size(), total);
+        for (UUID id : ids) {
+            assertTrue(existsOn(shardRouter.shardFor(id), id), "personne " + id + " absente de son shard");
+        }
+    }
+
+    private static int twoShardOwner(UUID id) {
+        return ShardRouter.jumpConsistentHash(id.getMostSignificantBits() ^ id.getLeastSignificantBits(), 2);
+    }
+
+    private static Person newPerson() {
+        Person person = new Person();
+        person.setNom("Dupont");
+        person.setPrenom("Jean");
+        person.setDateNaissance(LocalDate.of(1990, 5, 17));
+        return person;
+    }
+}
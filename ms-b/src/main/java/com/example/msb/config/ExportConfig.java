@@ -0,0 +1,40 @@
+package com.example.msb.config;
+
+import com.example.export.JdbcExporter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+@Configuration
+public class ExportConfig {
+
+    // Pool dedie (ages-export), volontairement pas un bean DataSource pour ne pas remplacer
+    // celui de Spring Boot: un export long ne prend aucune connexion du pool transactionnel,
+    // et useCursorFetch ne s'applique qu'a ces connexions. JdbcExporter le ferme a l'arret.
+    @Bean
+    public JdbcExporter jdbcExporter(@Value("${export.datasource.url:${spring.datasource.url}}") String url,
+                                     @Value("${export.datasource.username:${spring.datasource.username:}}") String username,
+                                     @Value("${export.datasource.password:${spring.datasource.password:}}") String password,
+                                     @Value("${export.datasource.driver-class-name:${spring.datasource.driver-class-name:}}") String driverClassName,
+                                     @Value("${export.fetch-size:1000}") int fetchSize,
+                                     @Value("${export.max-concurrent:2}") int maxConcurrent,
+                                     @Value("${export.buffer-size:65536}") int bufferSize) {
+        DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password);
+        if (StringUtils.hasText(driverClassName)) {
+            builder.driverClassName(driverClassName);
+        }
+        HikariDataSource exportDataSource = builder.build();
+        exportDataSource.setPoolName("ages-export");
+        exportDataSource.setMaximumPoolSize(maxConcurrent);
+        exportDataSource.setMinimumIdle(0);
+
+        return new JdbcExporter(exportDataSource, fetchSize, maxConcurrent, bufferSize);
+    }
+}
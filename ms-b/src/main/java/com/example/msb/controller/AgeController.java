@@ -1,5 +1,8 @@
 package com.example.msb.controller;
 
+import com.example.export.ExportBusyException;
+import com.example.export.ExportFormat;
+import com.example.export.ExportResponse;
 import com.example.msb.model.PersonAge;
 import com.example.msb.service.AgeCalculatorService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,7 +19,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
 import java.util.LinkedHashMap;
@@ -79,6 +85,38 @@ public class AgeController {
         return ResponseEntity.ok(personAge);
     }
 
+    @GetMapping("/export")
+    @Operation(
+            summary = "Exporter tous les ages calcules",
+            description = "Streame la table person_ages en CSV ou NDJSON sans charger les entites en memoire. "
+                    + "Avec gzip=true, la reponse est un fichier .gz (application/gzip).",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Export streame",
+                    content = {
+                            @Content(mediaType = "text/csv"),
+                            @Content(mediaType = "application/x-ndjson"),
+                            @Content(mediaType = "application/gzip")
+                    }
+            ),
+            @ApiResponse(responseCode = "400", description = "Format d'export inconnu"),
+            @ApiResponse(responseCode = "503", description = "Trop d'exports en cours")
+    })
+    public ResponseEntity<StreamingResponseBody> exportPersonAges(@RequestParam(defaultValue = "csv") String format,
+                                                                  @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+        if (exportFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format d'export inconnu: " + format);
+        }
+        StreamingResponseBody body = ageCalculatorService.exportPersonAges(exportFormat, gzip)
+                .orElseThrow(ExportBusyException::new);
+
+        return ExportResponse.attachment("ages", exportFormat, gzip, body);
+    }
+
     private Map<String, Object> notFoundBody(String message, String path) {
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", Instant.now().toString());
@@ -2,16 +2,21 @@ package com.example.msb.service;
 
 import com.example.dtos.AgeEvent;
 import com.example.dtos.PersonCreatedEvent;
+import com.example.export.ExportFormat;
+import com.example.export.ExportQuery;
+import com.example.export.JdbcExporter;
 import com.example.msb.model.PersonAge;
 import com.example.msb.repository.PersonAgeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -19,8 +24,14 @@ import java.util.UUID;
 @Slf4j
 public class AgeCalculatorService {
 
+    private static final ExportQuery EXPORT_QUERY = new ExportQuery(
+            "SELECT person_id, date_naissance, age, calculated_at FROM person_ages",
+            new String[]{"personId", "dateNaissance", "age", "calculatedAt"},
+            Set.of("personId"));
+
     private final PersonAgeRepository personAgeRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final JdbcExporter jdbcExporter;
 
     public void processPersonCreatedEvent(PersonCreatedEvent event) {
         try {
@@ -53,4 +64,8 @@ public class AgeCalculatorService {
     public Optional<PersonAge> getPersonAge(UUID personId) {
         return personAgeRepository.findById(personId);
     }
+
+    public Optional<StreamingResponseBody> exportPersonAges(ExportFormat format, boolean gzip) {
+        return jdbcExporter.open(EXPORT_QUERY, format, gzip);
+    }
 }
\ No newline at end of file